@@ -0,0 +1,212 @@
+/*
+ * Copyright 2018 Esri France.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esrifrance.sig2018.scene.scene_layer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import com.esri.arcgisruntime.geometry.Point;
+import com.esri.arcgisruntime.mapping.Surface;
+import com.esri.arcgisruntime.mapping.Viewpoint;
+import com.esri.arcgisruntime.mapping.view.Camera;
+import com.esri.arcgisruntime.mapping.view.DrawStatus;
+import com.esri.arcgisruntime.mapping.view.DrawStatusChangedEvent;
+import com.esri.arcgisruntime.mapping.view.DrawStatusChangedListener;
+import com.esri.arcgisruntime.mapping.view.SceneView;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.event.Event;
+import javafx.event.EventHandler;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.util.Duration;
+
+/**
+ * Navigates a scene view between bookmarks. Instead of jumping to a viewpoint,
+ * the camera flies to it in one timed animation while elevation along the
+ * {@link CameraPath} is loaded ahead of it, so tiles and scene nodes stream in
+ * progressively. The navigator can also warm every bookmark at startup by
+ * rendering each of them once before the user needs them.
+ * <p>
+ * All methods must be called on the JavaFX application thread.
+ */
+public class BookmarkNavigator {
+	private static final int PATH_STEPS = 8;
+	private static final int PREFETCH_CAPACITY = 64;
+	private static final Duration WARM_UP_TIMEOUT = Duration.seconds(10);
+
+	private final SceneView sceneView;
+	private final ElevationPrefetcher prefetcher;
+
+	// incremented on each navigation, so that a newer one cancels the previous
+	private int navigation;
+
+	/**
+	 * Creates a navigator for a scene view.
+	 *
+	 * @param sceneView
+	 *            scene view to navigate
+	 * @param surface
+	 *            surface to load elevation from
+	 */
+	public BookmarkNavigator(SceneView sceneView, Surface surface) {
+		this.sceneView = sceneView;
+		this.prefetcher = new ElevationPrefetcher(surface, PREFETCH_CAPACITY);
+	}
+
+	/**
+	 * Flies the camera to a viewpoint, cancelling any navigation in progress.
+	 *
+	 * @param viewpoint
+	 *            viewpoint to fly to
+	 */
+	public void flyTo(Viewpoint viewpoint) {
+		navigation++;
+
+		CameraPath path = CameraPath.between(sceneView.getCurrentViewpointCamera(), center(viewpoint), PATH_STEPS);
+		prefetcher.prefetch(path.getLocations());
+
+		sceneView.setViewpointAsync(viewpoint, path.getDuration());
+	}
+
+	/**
+	 * Renders each viewpoint once so that its tiles and scene nodes are loaded,
+	 * then restores the current camera. Any later navigation or interaction with
+	 * the view cancels the warm-up and leaves the camera where it is.
+	 *
+	 * @param viewpoints
+	 *            viewpoints to warm
+	 * @param onProgress
+	 *            called with the number of warmed viewpoints and the total
+	 * @param onDone
+	 *            called when the warm-up ends or is cancelled
+	 */
+	public void warmUp(List<Viewpoint> viewpoints, BiConsumer<Integer, Integer> onProgress, Runnable onDone) {
+		List<Point> locations = new ArrayList<>(viewpoints.size());
+		for (Viewpoint viewpoint : viewpoints) {
+			locations.add(center(viewpoint));
+		}
+		prefetcher.prefetch(locations);
+
+		new WarmUp(viewpoints, onProgress, onDone, ++navigation).start();
+	}
+
+	private static Point center(Viewpoint viewpoint) {
+		return viewpoint.getTargetGeometry().getExtent().getCenter();
+	}
+
+	/**
+	 * Stops loading elevation in the background.
+	 */
+	public void dispose() {
+		navigation++;
+		prefetcher.dispose();
+	}
+
+	/**
+	 * Visits viewpoints one at a time, moving to the next one when the view has
+	 * finished drawing or after a timeout, until the user takes over the view.
+	 */
+	private final class WarmUp implements DrawStatusChangedListener {
+		private final List<Viewpoint> viewpoints;
+		private final BiConsumer<Integer, Integer> onProgress;
+		private final Runnable onDone;
+		private final int current;
+		private final Camera restore;
+		private final PauseTransition timeout = new PauseTransition(WARM_UP_TIMEOUT);
+		// the user panning or zooming stops the warm-up where the view is
+		private final EventHandler<Event> interaction = e -> finish();
+
+		private int index;
+		private boolean drawing;
+		private boolean finished;
+
+		private WarmUp(List<Viewpoint> viewpoints, BiConsumer<Integer, Integer> onProgress, Runnable onDone,
+				int current) {
+			this.viewpoints = Collections.unmodifiableList(new ArrayList<>(viewpoints));
+			this.onProgress = onProgress;
+			this.onDone = onDone;
+			this.current = current;
+			this.restore = sceneView.getCurrentViewpointCamera();
+			timeout.setOnFinished(e -> advance());
+		}
+
+		private void start() {
+			sceneView.addDrawStatusChangedListener(this);
+			sceneView.addEventFilter(MouseEvent.MOUSE_PRESSED, interaction);
+			sceneView.addEventFilter(ScrollEvent.SCROLL, interaction);
+			onProgress.accept(0, viewpoints.size());
+			visit();
+		}
+
+		private void visit() {
+			if (current != navigation) {
+				finish();
+			} else if (index == viewpoints.size()) {
+				sceneView.setViewpointCamera(restore);
+				finish();
+			} else {
+				drawing = false;
+				timeout.playFromStart();
+				sceneView.setViewpoint(viewpoints.get(index));
+			}
+		}
+
+		private void advance() {
+			timeout.stop();
+			index++;
+			onProgress.accept(index, viewpoints.size());
+			visit();
+		}
+
+		private void finish() {
+			if (finished) {
+				return;
+			}
+			finished = true;
+			timeout.stop();
+			sceneView.removeDrawStatusChangedListener(this);
+			sceneView.removeEventFilter(MouseEvent.MOUSE_PRESSED, interaction);
+			sceneView.removeEventFilter(ScrollEvent.SCROLL, interaction);
+			onDone.run();
+		}
+
+		@Override
+		public void drawStatusChanged(DrawStatusChangedEvent event) {
+			DrawStatus status = event.getDrawStatus();
+			Platform.runLater(() -> {
+				if (finished) {
+					return;
+				}
+				if (current != navigation) {
+					finish();
+					return;
+				}
+				// only count a completion that follows a draw of the current viewpoint
+				if (status == DrawStatus.IN_PROGRESS) {
+					drawing = true;
+				} else if (status == DrawStatus.COMPLETED && drawing) {
+					advance();
+				}
+			});
+		}
+	}
+
+}
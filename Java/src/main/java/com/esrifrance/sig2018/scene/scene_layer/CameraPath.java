@@ -0,0 +1,118 @@
+/*
+ * Copyright 2018 Esri France.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esrifrance.sig2018.scene.scene_layer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.esri.arcgisruntime.geometry.AngularUnit;
+import com.esri.arcgisruntime.geometry.AngularUnitId;
+import com.esri.arcgisruntime.geometry.GeodeticCurveType;
+import com.esri.arcgisruntime.geometry.GeodeticDistanceResult;
+import com.esri.arcgisruntime.geometry.GeometryEngine;
+import com.esri.arcgisruntime.geometry.LinearUnit;
+import com.esri.arcgisruntime.geometry.LinearUnitId;
+import com.esri.arcgisruntime.geometry.Point;
+import com.esri.arcgisruntime.geometry.SpatialReferences;
+import com.esri.arcgisruntime.mapping.view.Camera;
+
+/**
+ * The path followed on the ground by the point a camera looks at while it
+ * flies to a target, and the duration of the flight. The target comes first in
+ * the locations, since that is where the view stalls if its data is not loaded
+ * when the camera arrives.
+ */
+public class CameraPath {
+	private static final LinearUnit METERS = new LinearUnit(LinearUnitId.METERS);
+	private static final AngularUnit DEGREES = new AngularUnit(AngularUnitId.DEGREES);
+
+	// farthest look-at point considered for a camera close to the horizon
+	private static final double MAX_LOOK_DISTANCE = 5000.0;
+	// flight speed of the look-at point, in meters per second
+	private static final double FLIGHT_SPEED = 2000.0;
+	private static final float MIN_DURATION = 1.5f;
+	private static final float MAX_DURATION = 4.0f;
+
+	private final List<Point> locations;
+	private final float duration;
+
+	private CameraPath(List<Point> locations, float duration) {
+		this.locations = Collections.unmodifiableList(locations);
+		this.duration = duration;
+	}
+
+	/**
+	 * Computes the path from the point a camera looks at to a target location.
+	 *
+	 * @param from
+	 *            camera the flight starts from
+	 * @param target
+	 *            location the flight ends looking at
+	 * @param steps
+	 *            number of locations along the path
+	 * @return the camera path
+	 */
+	public static CameraPath between(Camera from, Point target, int steps) {
+		Point start = lookAt(from);
+		Point end = (Point) GeometryEngine.project(target, SpatialReferences.getWgs84());
+
+		GeodeticDistanceResult distance = GeometryEngine.distanceGeodetic(start, end, METERS, DEGREES,
+				GeodeticCurveType.GEODESIC);
+
+		// the target first, then the locations along the geodesic, nearest first
+		List<Point> locations = new ArrayList<>(steps + 1);
+		locations.add(end);
+		for (int i = 1; i < steps; i++) {
+			locations.add(GeometryEngine.moveGeodetic(start, distance.getDistance() * i / steps, METERS,
+					distance.getAzimuth1(), DEGREES, GeodeticCurveType.GEODESIC));
+		}
+
+		float duration = (float) (distance.getDistance() / FLIGHT_SPEED);
+		return new CameraPath(locations, Math.max(MIN_DURATION, Math.min(duration, MAX_DURATION)));
+	}
+
+	/**
+	 * Estimates the ground point at the center of the view of a camera, assuming
+	 * flat ground at zero elevation.
+	 */
+	private static Point lookAt(Camera camera) {
+		Point location = (Point) GeometryEngine.project(camera.getLocation(), SpatialReferences.getWgs84());
+		double pitch = Math.min(camera.getPitch(), 89.0);
+		double distance = Math.min(location.getZ() * Math.tan(Math.toRadians(pitch)), MAX_LOOK_DISTANCE);
+
+		Point ground = new Point(location.getX(), location.getY(), SpatialReferences.getWgs84());
+		return GeometryEngine.moveGeodetic(ground, Math.max(distance, 0.0), METERS, camera.getHeading(), DEGREES,
+				GeodeticCurveType.GEODESIC);
+	}
+
+	/**
+	 * @return the target, then the ground locations looked at on the way to it in
+	 *         flight order
+	 */
+	public List<Point> getLocations() {
+		return locations;
+	}
+
+	/**
+	 * @return duration of the flight in seconds
+	 */
+	public float getDuration() {
+		return duration;
+	}
+
+}
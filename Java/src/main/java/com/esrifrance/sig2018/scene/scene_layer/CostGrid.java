@@ -0,0 +1,192 @@
+/*
+ * Copyright 2018 Esri France.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esrifrance.sig2018.scene.scene_layer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.geometry.GeometryEngine;
+import com.esri.arcgisruntime.geometry.Point;
+import com.esri.arcgisruntime.geometry.SpatialReferences;
+import com.esri.arcgisruntime.mapping.Surface;
+
+/**
+ * A square grid of ground cells around a location, holding the terrain
+ * elevation of each cell. The grid gives the cost of moving between
+ * neighbouring cells according to the slope.
+ */
+public class CostGrid {
+	private static final double METERS_PER_DEGREE = 111320.0;
+
+	// steepest slope a vehicle can climb, as a rise over run ratio
+	public static final double MAX_SLOPE = 0.3;
+	// extra cost of a move per unit of slope
+	private static final double SLOPE_COST = 10.0;
+	// number of elevation queries in flight while sampling
+	private static final int SAMPLE_BATCH = 256;
+
+	private final double west;
+	private final double south;
+	private final double cellLongitude;
+	private final double cellLatitude;
+	private final double cellSize;
+	private final int columns;
+	private final int rows;
+	private final float[] elevations;
+
+	private CostGrid(Point center, double halfSize, double cellSize) {
+		Point wgs84 = (Point) GeometryEngine.project(center, SpatialReferences.getWgs84());
+		this.cellSize = cellSize;
+		this.cellLatitude = cellSize / METERS_PER_DEGREE;
+		this.cellLongitude = cellSize / (METERS_PER_DEGREE * Math.cos(Math.toRadians(wgs84.getY())));
+		this.columns = (int) Math.ceil(2 * halfSize / cellSize);
+		this.rows = columns;
+		this.west = wgs84.getX() - columns * cellLongitude / 2;
+		this.south = wgs84.getY() - rows * cellLatitude / 2;
+		this.elevations = new float[columns * rows];
+	}
+
+	/**
+	 * Builds a grid by sampling the elevation of a surface at the center of each
+	 * cell. A cell whose elevation cannot be queried is impassable. This blocks
+	 * until every cell is sampled, so it must not be called on the JavaFX
+	 * application thread.
+	 *
+	 * @param surface
+	 *            surface to sample elevation from
+	 * @param center
+	 *            center of the grid
+	 * @param halfSize
+	 *            distance in meters from the center to the edges of the grid
+	 * @param cellSize
+	 *            size of a cell in meters
+	 * @return the sampled grid
+	 * @throws InterruptedException
+	 *             if the thread is interrupted while sampling
+	 */
+	public static CostGrid sample(Surface surface, Point center, double halfSize, double cellSize)
+			throws InterruptedException {
+		CostGrid grid = new CostGrid(center, halfSize, cellSize);
+
+		List<ListenableFuture<Double>> batch = new ArrayList<>(SAMPLE_BATCH);
+		for (int start = 0; start < grid.size(); start += SAMPLE_BATCH) {
+			int end = Math.min(start + SAMPLE_BATCH, grid.size());
+			batch.clear();
+			for (int cell = start; cell < end; cell++) {
+				batch.add(surface.getElevationAsync(grid.getLocation(cell)));
+			}
+			for (int cell = start; cell < end; cell++) {
+				try {
+					grid.elevations[cell] = batch.get(cell - start).get().floatValue();
+				} catch (ExecutionException e) {
+					grid.elevations[cell] = Float.NaN;
+				}
+			}
+		}
+
+		return grid;
+	}
+
+	/**
+	 * @param location
+	 *            location to look up
+	 * @return index of the cell containing the location, or -1 if it is outside
+	 *         the grid
+	 */
+	public int getCell(Point location) {
+		Point wgs84 = (Point) GeometryEngine.project(location, SpatialReferences.getWgs84());
+		int column = (int) Math.floor((wgs84.getX() - west) / cellLongitude);
+		int row = (int) Math.floor((wgs84.getY() - south) / cellLatitude);
+		if (column < 0 || column >= columns || row < 0 || row >= rows) {
+			return -1;
+		}
+		return row * columns + column;
+	}
+
+	/**
+	 * @param location
+	 *            location to look up
+	 * @return whether the location is inside the grid
+	 */
+	public boolean contains(Point location) {
+		return getCell(location) >= 0;
+	}
+
+	/**
+	 * @param cell
+	 *            index of the cell
+	 * @return location of the center of the cell
+	 */
+	public Point getLocation(int cell) {
+		double x = west + (cell % columns + 0.5) * cellLongitude;
+		double y = south + (cell / columns + 0.5) * cellLatitude;
+		return new Point(x, y, SpatialReferences.getWgs84());
+	}
+
+	/**
+	 * @return slope between the centers of two cells, as a rise over run ratio
+	 */
+	public double getSlope(int from, int to) {
+		return Math.abs(elevations[to] - elevations[from]) / getDistance(from, to);
+	}
+
+	/**
+	 * @return ground distance in meters between the centers of two cells
+	 */
+	public double getDistance(int from, int to) {
+		int dx = Math.abs(from % columns - to % columns);
+		int dy = Math.abs(from / columns - to / columns);
+		return cellSize * Math.sqrt(dx * dx + dy * dy);
+	}
+
+	/**
+	 * @return cost of moving between two neighbouring cells, or
+	 *         {@link Double#POSITIVE_INFINITY} if the move is impossible
+	 */
+	public double getCost(int from, int to) {
+		if (Float.isNaN(elevations[from]) || Float.isNaN(elevations[to])) {
+			return Double.POSITIVE_INFINITY;
+		}
+		double slope = getSlope(from, to);
+		if (slope > MAX_SLOPE) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return getDistance(from, to) * (1 + SLOPE_COST * slope);
+	}
+
+	public int getColumns() {
+		return columns;
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	public double getCellSize() {
+		return cellSize;
+	}
+
+	/**
+	 * @return number of cells in the grid
+	 */
+	public int size() {
+		return elevations.length;
+	}
+
+}
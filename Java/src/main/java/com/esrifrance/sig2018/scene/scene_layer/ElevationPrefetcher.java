@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 Esri France.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esrifrance.sig2018.scene.scene_layer;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.geometry.Point;
+import com.esri.arcgisruntime.mapping.Surface;
+
+/**
+ * Loads elevation data ahead of the camera by querying the surface at given
+ * locations from a background thread. Requests go through a bounded queue:
+ * when it is full, new locations are dropped rather than blocking the caller.
+ */
+public class ElevationPrefetcher {
+	private static final long QUERY_TIMEOUT_SECONDS = 10;
+
+	private final Surface surface;
+	private final BlockingQueue<Point> queue;
+	private final ExecutorService executor;
+
+	/**
+	 * Creates a prefetcher and starts its background thread.
+	 *
+	 * @param surface
+	 *            surface to load elevation from
+	 * @param capacity
+	 *            maximum number of pending locations
+	 */
+	public ElevationPrefetcher(Surface surface, int capacity) {
+		this.surface = surface;
+		this.queue = new ArrayBlockingQueue<>(capacity);
+		this.executor = Executors.newSingleThreadExecutor(r -> {
+			Thread thread = new Thread(r, "elevation-prefetch");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.execute(this::run);
+	}
+
+	/**
+	 * Replaces the pending locations with new ones, so that the queue follows the
+	 * latest flight.
+	 *
+	 * @param locations
+	 *            locations to load elevation for, most urgent first
+	 */
+	public void prefetch(List<Point> locations) {
+		queue.clear();
+		for (Point location : locations) {
+			if (!queue.offer(location)) {
+				break;
+			}
+		}
+	}
+
+	private void run() {
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				Point location = queue.take();
+				ListenableFuture<Double> elevation = surface.getElevationAsync(location);
+				try {
+					elevation.get(QUERY_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					throw e;
+				} catch (Exception e) {
+					// a failed query only means this location stays cold
+					elevation.cancel(true);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Stops the background thread and drops pending locations.
+	 */
+	public void dispose() {
+		queue.clear();
+		executor.shutdownNow();
+	}
+
+}
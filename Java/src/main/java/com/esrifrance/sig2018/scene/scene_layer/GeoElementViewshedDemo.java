@@ -17,6 +17,7 @@
 package com.esrifrance.sig2018.scene.scene_layer;
 
 import java.io.File;
+import java.util.concurrent.CompletableFuture;
 
 import com.esri.arcgisruntime.data.TileCache;
 import com.esri.arcgisruntime.geoanalysis.GeoElementViewshed;
@@ -49,6 +50,7 @@ import com.esri.arcgisruntime.symbology.SimpleRenderer;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.Point2D;
 import javafx.scene.Scene;
 import javafx.scene.input.MouseButton;
@@ -59,12 +61,26 @@ import javafx.util.Duration;
 public class GeoElementViewshedDemo extends Application {
 	private static final LinearUnit METERS = new LinearUnit(LinearUnitId.METERS);
 	private static final AngularUnit DEGREES = new AngularUnit(AngularUnitId.DEGREES);
+	// area around the tank and its destination where routes are planned
+	private static final double PLANNING_HALF_SIZE = 600.0;
+	private static final double PLANNING_MARGIN = 200.0;
+	private static final double PLANNING_CELL_SIZE = 5.0;
+	// largest number of cells along a side, so that sampling time stays bounded
+	private static final int PLANNING_COLUMNS = 240;
+	private static final double TICK_SECONDS = 0.1;
 	private ArcGISScene scene;
 	private SceneView sceneView;
 	private StackPane stackPane;
 	private Graphic tank;
 	private Timeline animation;
 	private Point waypoint;
+	private CostGrid grid;
+	private PathPlanner planner;
+	private boolean sampling;
+	private Route route;
+	private int routeWaypoint;
+	// incremented on each destination, so that a late route cannot replace a newer one
+	private int drive;
 
 	private void createScene() {
 		// create a scene and add a basemap to it
@@ -140,10 +156,135 @@ public class GeoElementViewshedDemo extends Application {
 	}
 
 	/**
-	 * Moves the tank toward the current waypoint a short distance.
+	 * Samples the terrain off the FX thread, around the tank and the destination
+	 * it is driving straight to, if any. Once sampled, a pending straight drive is
+	 * planned again on the new grid.
 	 */
-	private void animate() {
+	private void samplePlanningArea() {
+		if (sampling) {
+			return;
+		}
+		sampling = true;
+
+		Point location = (Point) tank.getGeometry();
+		Point center = location;
+		double halfSize = PLANNING_HALF_SIZE;
 		if (waypoint != null) {
+			// cover the box around the tank and its destination
+			GeodeticDistanceResult distance = GeometryEngine.distanceGeodetic(location, waypoint, METERS, DEGREES,
+					GeodeticCurveType.GEODESIC);
+			center = GeometryEngine.moveGeodetic(location, distance.getDistance() / 2, METERS, distance.getAzimuth1(),
+					DEGREES, GeodeticCurveType.GEODESIC);
+			halfSize = Math.max(halfSize, distance.getDistance() / 2 + PLANNING_MARGIN);
+		}
+		double cellSize = Math.max(PLANNING_CELL_SIZE, 2 * halfSize / PLANNING_COLUMNS);
+
+		Point gridCenter = center;
+		double gridHalfSize = halfSize;
+		Surface surface = scene.getBaseSurface();
+		CompletableFuture.supplyAsync(() -> {
+			try {
+				return CostGrid.sample(surface, gridCenter, gridHalfSize, cellSize);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return null;
+			}
+		}).whenComplete((sampled, error) -> Platform.runLater(() -> {
+			sampling = false;
+			if (sampled == null) {
+				// without a grid the tank keeps driving in a straight line
+				if (error != null) {
+					error.printStackTrace();
+				}
+				return;
+			}
+
+			if (planner != null) {
+				planner.dispose();
+			}
+			grid = sampled;
+			planner = new PathPlanner(sampled);
+
+			// plan the straight drive that was waiting for this grid
+			if (waypoint != null) {
+				driveTo(waypoint);
+			}
+		}));
+	}
+
+	/**
+	 * Plans a route to the destination. Drives straight to it while the terrain
+	 * around the tank and the destination is being sampled, or when no route is
+	 * found.
+	 */
+	private void driveTo(Point destination) {
+		int current = ++drive;
+		if (planner == null || !grid.contains((Point) tank.getGeometry()) || !grid.contains(destination)) {
+			route = null;
+			waypoint = destination;
+			samplePlanningArea();
+			return;
+		}
+
+		planner.planAsync((Point) tank.getGeometry(), destination).whenComplete((planned, error) -> Platform
+				.runLater(() -> {
+					if (current != drive) {
+						return;
+					}
+					// no route when the destination cannot be reached or planning failed
+					if (planned != null) {
+						waypoint = null;
+						route = planned;
+						routeWaypoint = 0;
+					} else {
+						if (error != null) {
+							error.printStackTrace();
+						}
+						route = null;
+						waypoint = destination;
+					}
+				}));
+	}
+
+	/**
+	 * Rotates the tank a little toward an azimuth, turning the short way round.
+	 */
+	private void turnToward(double azimuth) {
+		double heading = (double) tank.getAttributes().get("HEADING");
+		double delta = ((azimuth - heading) % 360 + 540) % 360 - 180;
+		tank.getAttributes().put("HEADING", heading + delta / 10);
+	}
+
+	/**
+	 * Moves the tank along the current route a distance limited by the slope.
+	 */
+	private void animate() {
+		if (route != null) {
+			// get current location and distance from the next waypoint of the route
+			Point location = (Point) tank.getGeometry();
+			Point next = route.getWaypoints().get(routeWaypoint);
+			GeodeticDistanceResult distance = GeometryEngine.distanceGeodetic(location, next, METERS, DEGREES,
+					GeodeticCurveType.GEODESIC);
+
+			// move toward the waypoint at the speed allowed by the slope
+			double step = route.getSpeed(routeWaypoint) * TICK_SECONDS;
+			if (distance.getDistance() <= step) {
+				tank.setGeometry(next);
+				routeWaypoint++;
+			} else {
+				location = GeometryEngine.moveGeodetic(location, step, METERS, distance.getAzimuth1(), DEGREES,
+						GeodeticCurveType.GEODESIC);
+				tank.setGeometry(location);
+			}
+
+			// rotate toward waypoint
+			turnToward(distance.getAzimuth1());
+
+			// reached the end of the route, stop moving
+			if (routeWaypoint == route.getWaypoints().size()) {
+				route = null;
+			}
+		} else if (waypoint != null) {
 			// get current location and distance from waypoint
 			Point location = (Point) tank.getGeometry();
 			GeodeticDistanceResult distance = GeometryEngine.distanceGeodetic(location, waypoint, METERS, DEGREES,
@@ -155,8 +296,7 @@ public class GeoElementViewshedDemo extends Application {
 			tank.setGeometry(location);
 
 			// rotate toward waypoint
-			double heading = (double) tank.getAttributes().get("HEADING");
-			tank.getAttributes().put("HEADING", heading + ((distance.getAzimuth1() - heading) / 10));
+			turnToward(distance.getAzimuth1());
 
 			// reached waypoint, stop moving
 			if (distance.getDistance() <= 5) {
@@ -184,22 +324,23 @@ public class GeoElementViewshedDemo extends Application {
 			createScene();
 			createGeoElement();
 			createViewshed();
+			samplePlanningArea();
 
-			// set the waypoint where the user clicks
+			// drive to where the user clicks
 			sceneView.setOnMouseClicked(e -> {
 				if ( e.getClickCount() == 2 && e.getButton() == MouseButton.PRIMARY) {
 					// create a point from where the user clicked
 					Point2D point = new Point2D(e.getX(), e.getY());
 
-					// set the new waypoint
-					waypoint = sceneView.screenToBaseSurface(point);
+					// set the new destination
+					driveTo(sceneView.screenToBaseSurface(point));
 				}
 			});
 
 			// create a timeline to animate the tank
 			animation = new Timeline();
 			animation.setCycleCount(-1);
-			animation.getKeyFrames().add(new KeyFrame(Duration.millis(100), e -> animate()));
+			animation.getKeyFrames().add(new KeyFrame(Duration.seconds(TICK_SECONDS), e -> animate()));
 			animation.play();
 
 		} catch (Exception e) {
@@ -216,6 +357,10 @@ public class GeoElementViewshedDemo extends Application {
 		// stop the animation
 		animation.stop();
 
+		if (planner != null) {
+			planner.dispose();
+		}
+
 		if (sceneView != null) {
 			sceneView.dispose();
 		}
@@ -17,6 +17,7 @@
 package com.esrifrance.sig2018.scene.scene_layer;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
@@ -58,6 +59,7 @@ import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.TextInputDialog;
 import javafx.scene.image.Image;
 import javafx.scene.input.MouseButton;
@@ -72,6 +74,10 @@ import javafx.util.Duration;
 
 public class LocationViewshedDemo extends Application {
 
+	// render every bookmark once at startup so the first visit does not stall,
+	// when run with -DwarmBookmarks=true
+	private static final boolean WARM_BOOKMARKS_AT_STARTUP = Boolean.getBoolean("warmBookmarks");
+
 	private ArcGISScene scene;
 	private SceneView sceneView;
 	private StackPane stackPane;
@@ -79,6 +85,8 @@ public class LocationViewshedDemo extends Application {
 	// Bookmark
 	private BookmarkList bookmarkList;
 	private Bookmark bookmark;
+	private BookmarkNavigator bookmarkNavigator;
+	private VBox bookmarksVBox;
 
 	// Viewshed
 	private LocationViewshed viewshed;
@@ -133,7 +141,7 @@ public class LocationViewshedDemo extends Application {
 		controlsVBox.setBackground(
 				new Background(new BackgroundFill(Paint.valueOf("rgba(0,0,0,0.3)"), CornerRadii.EMPTY, Insets.EMPTY)));
 		controlsVBox.setPadding(new Insets(10.0));
-		controlsVBox.setMaxSize(220, 240);
+		controlsVBox.setMaxSize(220, 280);
 		controlsVBox.getStyleClass().add("panel-region");
 
 		// create label for bookmarks
@@ -144,10 +152,13 @@ public class LocationViewshedDemo extends Application {
 		ListView<String> bookmarkNames = new ListView<>();
 		bookmarkNames.setMaxHeight(190);
 
-		// when user clicks on a bookmark change to that location
+		// when user clicks on a bookmark fly to that location
+		bookmarkNavigator = new BookmarkNavigator(sceneView, scene.getBaseSurface());
 		bookmarkNames.getSelectionModel().selectedItemProperty().addListener((ov, old_val, new_val) -> {
 			int index = bookmarkNames.getSelectionModel().getSelectedIndex();
-			sceneView.setViewpoint(bookmarkList.get(index).getViewpoint());
+			if (index >= 0) {
+				bookmarkNavigator.flyTo(bookmarkList.get(index).getViewpoint());
+			}
 		});
 
 		// create button to add a bookmark
@@ -210,6 +221,22 @@ public class LocationViewshedDemo extends Application {
 		stackPane.getChildren().addAll(controlsVBox);
 		StackPane.setAlignment(controlsVBox, Pos.TOP_LEFT);
 		StackPane.setMargin(controlsVBox, new Insets(10, 0, 0, 10));
+		bookmarksVBox = controlsVBox;
+	}
+
+	private void warmBookmarks() {
+		// show the warm-up progress under the bookmarks
+		ProgressBar progressBar = new ProgressBar(0);
+		progressBar.setMaxWidth(Double.MAX_VALUE);
+		bookmarksVBox.getChildren().add(progressBar);
+
+		List<Viewpoint> viewpoints = new ArrayList<>();
+		for (Bookmark b : bookmarkList) {
+			viewpoints.add(b.getViewpoint());
+		}
+
+		bookmarkNavigator.warmUp(viewpoints, (warmed, total) -> progressBar.setProgress((double) warmed / total),
+				() -> bookmarksVBox.getChildren().remove(progressBar));
 	}
 	
 	
@@ -397,6 +424,11 @@ public class LocationViewshedDemo extends Application {
 			createViewshed();
 			createLocator();
 
+			// warm the bookmarks once the rest of the scene is set up from the initial camera
+			if (WARM_BOOKMARKS_AT_STARTUP) {
+				warmBookmarks();
+			}
+
 			sceneView.setOnMouseClicked(e -> {
 				if(!e.isStillSincePress()) {
 					return;
@@ -426,6 +458,10 @@ public class LocationViewshedDemo extends Application {
 	@Override
 	public void stop() {
 
+		if (bookmarkNavigator != null) {
+			bookmarkNavigator.dispose();
+		}
+
 		if (sceneView != null) {
 			sceneView.dispose();
 		}
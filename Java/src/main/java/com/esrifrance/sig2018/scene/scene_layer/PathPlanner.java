@@ -0,0 +1,289 @@
+/*
+ * Copyright 2018 Esri France.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esrifrance.sig2018.scene.scene_layer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.esri.arcgisruntime.geometry.GeometryEngine;
+import com.esri.arcgisruntime.geometry.Point;
+import com.esri.arcgisruntime.geometry.SpatialReferences;
+
+/**
+ * Plans routes on a {@link CostGrid} with A* over the 8 neighbours of each
+ * cell. The search keeps its open set in a binary heap of cell indices and its
+ * closed set in a boolean array, so a plan allocates a few primitive arrays and
+ * no object per cell. Plans run on a pool of background threads, so several
+ * vehicles can be routed in parallel.
+ */
+public class PathPlanner {
+	private static final int[] DX = { 1, 1, 0, -1, -1, -1, 0, 1 };
+	private static final int[] DY = { 0, 1, 1, 1, 0, -1, -1, -1 };
+	private static final double DIAGONAL = Math.sqrt(2) - 1;
+
+	private final CostGrid grid;
+	private final ExecutorService executor;
+
+	/**
+	 * Creates a planner and its pool of background threads.
+	 *
+	 * @param grid
+	 *            grid to plan routes on
+	 */
+	public PathPlanner(CostGrid grid) {
+		this.grid = grid;
+		this.executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+			Thread thread = new Thread(r, "path-planner");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Plans a route on a background thread.
+	 *
+	 * @param start
+	 *            location to start from
+	 * @param goal
+	 *            location to reach
+	 * @return a future completed with the route, or with null if the goal cannot
+	 *         be reached
+	 */
+	public CompletableFuture<Route> planAsync(Point start, Point goal) {
+		return CompletableFuture.supplyAsync(() -> plan(start, goal), executor);
+	}
+
+	/**
+	 * Plans a route on the calling thread.
+	 *
+	 * @param start
+	 *            location to start from
+	 * @param goal
+	 *            location to reach
+	 * @return the route, or null if the goal cannot be reached
+	 */
+	public Route plan(Point start, Point goal) {
+		int from = grid.getCell(start);
+		int to = grid.getCell(goal);
+		if (from < 0 || to < 0) {
+			return null;
+		}
+
+		int[] parents = search(from, to);
+		if (parents == null) {
+			return null;
+		}
+
+		// walk back from the goal to list the cells of the route
+		List<Integer> cells = new ArrayList<>();
+		for (int cell = to; cell != from; cell = parents[cell]) {
+			cells.add(cell);
+		}
+		cells.add(from);
+		Collections.reverse(cells);
+
+		// the route follows the ground, so the goal keeps no elevation
+		Point ground = (Point) GeometryEngine.project(goal, SpatialReferences.getWgs84());
+		return toRoute(cells, new Point(ground.getX(), ground.getY(), SpatialReferences.getWgs84()));
+	}
+
+	/**
+	 * Runs A* between two cells.
+	 *
+	 * @return the parent of each cell on the best known path, or null if the goal
+	 *         cannot be reached
+	 */
+	private int[] search(int from, int to) {
+		int size = grid.size();
+		int columns = grid.getColumns();
+		int rows = grid.getRows();
+
+		double[] costs = new double[size];
+		double[] scores = new double[size];
+		int[] parents = new int[size];
+		boolean[] closed = new boolean[size];
+		Arrays.fill(costs, Double.POSITIVE_INFINITY);
+
+		// open set as a binary heap of cells ordered by score, with the position
+		// of each cell in the heap to update its score in place
+		int[] heap = new int[size];
+		int[] positions = new int[size];
+		Arrays.fill(positions, -1);
+		int open = 0;
+
+		costs[from] = 0;
+		scores[from] = heuristic(from, to);
+		open = push(heap, positions, scores, open, from);
+
+		while (open > 0) {
+			int cell = heap[0];
+			open = pop(heap, positions, scores, open);
+			if (cell == to) {
+				return parents;
+			}
+			closed[cell] = true;
+
+			int column = cell % columns;
+			int row = cell / columns;
+			for (int i = 0; i < DX.length; i++) {
+				int x = column + DX[i];
+				int y = row + DY[i];
+				if (x < 0 || x >= columns || y < 0 || y >= rows) {
+					continue;
+				}
+				int next = y * columns + x;
+				if (closed[next]) {
+					continue;
+				}
+				double cost = costs[cell] + grid.getCost(cell, next);
+				if (cost < costs[next]) {
+					costs[next] = cost;
+					scores[next] = cost + heuristic(next, to);
+					parents[next] = cell;
+					if (positions[next] < 0) {
+						open = push(heap, positions, scores, open, next);
+					} else {
+						siftUp(heap, positions, scores, positions[next]);
+					}
+				}
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Octile distance between two cells, which never overestimates the cost since
+	 * a move costs at least its length.
+	 */
+	private double heuristic(int from, int to) {
+		int columns = grid.getColumns();
+		int dx = Math.abs(from % columns - to % columns);
+		int dy = Math.abs(from / columns - to / columns);
+		return grid.getCellSize() * (Math.max(dx, dy) + DIAGONAL * Math.min(dx, dy));
+	}
+
+	private static int push(int[] heap, int[] positions, double[] scores, int open, int cell) {
+		heap[open] = cell;
+		positions[cell] = open;
+		siftUp(heap, positions, scores, open);
+		return open + 1;
+	}
+
+	private static int pop(int[] heap, int[] positions, double[] scores, int open) {
+		positions[heap[0]] = -1;
+		open--;
+		if (open > 0) {
+			heap[0] = heap[open];
+			positions[heap[0]] = 0;
+			siftDown(heap, positions, scores, open);
+		}
+		return open;
+	}
+
+	private static void siftUp(int[] heap, int[] positions, double[] scores, int index) {
+		int cell = heap[index];
+		while (index > 0) {
+			int parent = (index - 1) / 2;
+			if (scores[heap[parent]] <= scores[cell]) {
+				break;
+			}
+			heap[index] = heap[parent];
+			positions[heap[index]] = index;
+			index = parent;
+		}
+		heap[index] = cell;
+		positions[cell] = index;
+	}
+
+	private static void siftDown(int[] heap, int[] positions, double[] scores, int open) {
+		int index = 0;
+		int cell = heap[0];
+		while (true) {
+			int child = 2 * index + 1;
+			if (child >= open) {
+				break;
+			}
+			if (child + 1 < open && scores[heap[child + 1]] < scores[heap[child]]) {
+				child++;
+			}
+			if (scores[cell] <= scores[heap[child]]) {
+				break;
+			}
+			heap[index] = heap[child];
+			positions[heap[index]] = index;
+			index = child;
+		}
+		heap[index] = cell;
+		positions[cell] = index;
+	}
+
+	/**
+	 * Keeps only the cells where the route turns or where the slope changes band,
+	 * with the steepest slope met since the previous one.
+	 */
+	private Route toRoute(List<Integer> cells, Point goal) {
+		List<Point> waypoints = new ArrayList<>();
+		List<Double> slopes = new ArrayList<>();
+
+		double slope = 0;
+		for (int i = 1; i < cells.size(); i++) {
+			int previous = cells.get(i - 1);
+			int cell = cells.get(i);
+			double cellSlope = grid.getSlope(previous, cell);
+			slope = Math.max(slope, cellSlope);
+
+			boolean last = i == cells.size() - 1;
+			if (!last) {
+				int next = cells.get(i + 1);
+				if (next - cell == cell - previous
+						&& Route.getSlopeBand(grid.getSlope(cell, next)) == Route.getSlopeBand(cellSlope)) {
+					// same direction and speed, the route goes straight through this cell
+					continue;
+				}
+			}
+
+			waypoints.add(last ? goal : grid.getLocation(cell));
+			slopes.add(slope);
+			slope = 0;
+		}
+		if (waypoints.isEmpty()) {
+			// start and goal share a cell
+			waypoints.add(goal);
+			slopes.add(0.0);
+		}
+
+		double[] values = new double[slopes.size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = slopes.get(i);
+		}
+		return new Route(waypoints, values);
+	}
+
+	/**
+	 * Stops the background threads once the plans already requested are done.
+	 */
+	public void dispose() {
+		executor.shutdown();
+	}
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2018 Esri France.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esrifrance.sig2018.scene.scene_layer;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.esri.arcgisruntime.geometry.Point;
+
+/**
+ * A route planned by a {@link PathPlanner}: the waypoints to drive through and
+ * the steepest slope met on the way to each of them, which limits the speed.
+ */
+public class Route {
+	// speed in meters per second on flat ground
+	public static final double MAX_SPEED = 10.0;
+	// fraction of the maximum speed kept on the steepest slope
+	private static final double MIN_SPEED_RATIO = 0.2;
+	// width of the slope bands within which a leg keeps the same speed
+	private static final double SLOPE_BAND = 0.05;
+
+	private final List<Point> waypoints;
+	private final double[] slopes;
+
+	Route(List<Point> waypoints, double[] slopes) {
+		this.waypoints = Collections.unmodifiableList(waypoints);
+		this.slopes = slopes;
+	}
+
+	/**
+	 * @return the waypoints, in driving order
+	 */
+	public List<Point> getWaypoints() {
+		return waypoints;
+	}
+
+	/**
+	 * @param waypoint
+	 *            index of the waypoint being driven to
+	 * @return speed in meters per second on the way to the waypoint
+	 */
+	public double getSpeed(int waypoint) {
+		double ratio = Math.min(slopes[waypoint] / CostGrid.MAX_SLOPE, 1.0);
+		return MAX_SPEED * (1 - (1 - MIN_SPEED_RATIO) * ratio);
+	}
+
+	/**
+	 * @return band of a slope, so that a leg only covers cells of similar slope
+	 */
+	static int getSlopeBand(double slope) {
+		return (int) (slope / SLOPE_BAND);
+	}
+
+}